@@ -0,0 +1,329 @@
+package com.galenrhodes.kwikjson;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+public class KJSONBinary {
+    public static final ResourceBundle msgs  = KJSON.msgs;
+    public static final KwikProperties props = KJSON.props;
+
+    public static final byte[] MAGIC          = props.getProperty("p.bin.magic").getBytes(StandardCharsets.US_ASCII);
+    public static final int    VERSION        = props.getInteger("p.bin.version");
+    public static final int    TAG_NULL       = props.getInteger("p.bin.tag.null");
+    public static final int    TAG_FALSE      = props.getInteger("p.bin.tag.false");
+    public static final int    TAG_TRUE       = props.getInteger("p.bin.tag.true");
+    public static final int    TAG_STRING     = props.getInteger("p.bin.tag.string");
+    public static final int    TAG_INT        = props.getInteger("p.bin.tag.int");
+    public static final int    TAG_BIGINT     = props.getInteger("p.bin.tag.bigint");
+    public static final int    TAG_DECIMAL    = props.getInteger("p.bin.tag.decimal");
+    public static final int    TAG_LIST       = props.getInteger("p.bin.tag.list");
+    public static final int    TAG_MAP        = props.getInteger("p.bin.tag.map");
+    public static final String MSG_BAD_VARINT = msgs.getString("msg.err.bin.malformed_varint");
+
+    private KJSONBinary() { }
+
+    public static byte[] toBinary(Object o) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        toBinary(o, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    public static void toBinary(Object o, OutputStream outputStream) throws IOException {
+        OutputStream out = new BufferedOutputStream(outputStream, 65536);
+        new Encoder(out).encode(o);
+        out.flush();
+    }
+
+    public static Object fromBinary(ByteBuffer buffer) throws IOException {
+        try { return new Decoder(buffer.duplicate()).decode(); }
+        catch(BufferUnderflowException | IndexOutOfBoundsException e) { throw new KwikJSONException(msgs.getString("msg.err.unexpected_eof"), e); }
+    }
+
+    public static Object fromBinary(byte[] bytes) throws IOException {
+        return fromBinary(ByteBuffer.wrap(bytes));
+    }
+
+    public static Object fromBinary(InputStream inputStream) throws IOException {
+        return fromBinary(U.readStream(inputStream));
+    }
+
+    public static Object fromBinary(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return fromBinary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static Object fromBinary(File file) throws IOException {
+        return fromBinary(file.toPath());
+    }
+
+    private static final class Encoder {
+        private final OutputStream         out;
+        private final Map<String, Integer> strings;
+
+        private Encoder(OutputStream out) {
+            this.out     = out;
+            this.strings = new LinkedHashMap<>();
+        }
+
+        private void collectStrings(Object o) throws KwikJSONException {
+            if(o instanceof String) internString((String)o);
+            else if(o instanceof List) for(Object item : (List<?>)o) collectStrings(item);
+            else if(o instanceof Map) {
+                for(Map.Entry<?, ?> e : ((Map<?, ?>)o).entrySet()) {
+                    if(!(e.getKey() instanceof String)) throw unsupportedType(e.getKey());
+                    internString((String)e.getKey());
+                    collectStrings(e.getValue());
+                }
+            }
+            else if(o != null && !(o instanceof Boolean) && !(o instanceof BigInteger) && !(o instanceof BigDecimal)) throw unsupportedType(o);
+        }
+
+        private void encode(Object root) throws IOException {
+            collectStrings(root);
+            out.write(MAGIC);
+            out.write(VERSION);
+            writeVarLong(strings.size());
+            for(String str : strings.keySet()) {
+                if(hasUnpairedSurrogate(str)) writeRawString(str);
+                else {
+                    byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+                    writeVarLong((long)bytes.length << 1);
+                    out.write(bytes);
+                }
+            }
+            writeObject(root);
+        }
+
+        private boolean hasUnpairedSurrogate(String str) {
+            for(int i = 0, j = str.length(); i < j; i++) {
+                char ch = str.charAt(i);
+                if(Character.isHighSurrogate(ch) && (i + 1) < j && Character.isLowSurrogate(str.charAt(i + 1))) i++;
+                else if(Character.isSurrogate(ch)) return true;
+            }
+            return false;
+        }
+
+        private void internString(String str) {
+            if(!strings.containsKey(str)) strings.put(str, strings.size());
+        }
+
+        private void writeInteger(BigInteger value) throws IOException {
+            if(value.bitLength() < 64) {
+                out.write(TAG_INT);
+                writeZigZag(value.longValue());
+            }
+            else {
+                byte[] bytes = value.toByteArray();
+                out.write(TAG_BIGINT);
+                writeVarLong(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        private void writeObject(Object o) throws IOException {
+            //@f:0
+            if(o == null)                    out.write(TAG_NULL);
+            else if(o instanceof Boolean)    out.write((Boolean)o ? TAG_TRUE : TAG_FALSE);
+            else if(o instanceof String)     writeString((String)o, true);
+            else if(o instanceof BigInteger) writeInteger((BigInteger)o);
+            else if(o instanceof BigDecimal) writeDecimal((BigDecimal)o);
+            else if(o instanceof List)       writeList((List<?>)o);
+            else if(o instanceof Map)        writeMap((Map<?, ?>)o);
+            else throw unsupportedType(o); //@f:1
+        }
+
+        private void writeDecimal(BigDecimal value) throws IOException {
+            out.write(TAG_DECIMAL);
+            writeZigZag(value.scale());
+            writeInteger(value.unscaledValue());
+        }
+
+        private void writeList(List<?> list) throws IOException {
+            out.write(TAG_LIST);
+            writeVarLong(list.size());
+            for(Object item : list) writeObject(item);
+        }
+
+        private void writeMap(Map<?, ?> map) throws IOException {
+            out.write(TAG_MAP);
+            writeVarLong(map.size());
+            for(Map.Entry<?, ?> e : map.entrySet()) {
+                writeString((String)e.getKey(), false);
+                writeObject(e.getValue());
+            }
+        }
+
+        private void writeRawString(String str) throws IOException {
+            writeVarLong(((long)str.length() << 1) | 1);
+            for(int i = 0, j = str.length(); i < j; i++) {
+                char ch = str.charAt(i);
+                out.write(ch >>> 8);
+                out.write(ch);
+            }
+        }
+
+        private void writeString(String str, boolean tagged) throws IOException {
+            if(tagged) out.write(TAG_STRING);
+            writeVarLong(strings.get(str));
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while((value & ~0x7fL) != 0) {
+                out.write((int)((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int)value);
+        }
+
+        private void writeZigZag(long value) throws IOException {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private static KwikJSONException unsupportedType(Object o) {
+            return new KwikJSONException(msgs.getString("msg.err.bin.unsupported_type"), ((o == null) ? null : o.getClass().getName()));
+        }
+    }
+
+    private static final class Decoder {
+        private final ByteBuffer buffer;
+        private       int[]      offsets;
+        private       int[]      lengths;
+        private       boolean[]  wide;
+        private       String[]   strings;
+
+        private Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private Object decode() throws IOException {
+            for(byte b : MAGIC) if(buffer.get() != b) throw new KwikJSONException(msgs.getString("msg.err.bin.bad_header"));
+            int version = (buffer.get() & 0xff);
+            if(version != VERSION) throw new KwikJSONException(msgs.getString("msg.err.bin.bad_version"), version);
+            readStringTable();
+            return readObject();
+        }
+
+        private int readCount() throws KwikJSONException {
+            long value = readVarLong();
+            if(value < 0 || value > Integer.MAX_VALUE) throw new KwikJSONException(MSG_BAD_VARINT);
+            return (int)value;
+        }
+
+        private BigInteger readInteger(int tag) throws KwikJSONException {
+            if(tag == TAG_INT) return BigInteger.valueOf(readZigZag());
+            if(tag != TAG_BIGINT) throw new KwikJSONException(msgs.getString("msg.err.bin.bad_tag"), tag);
+            int len = readCount();
+            if(len == 0) throw new KwikJSONException(MSG_BAD_VARINT);
+            if(len > buffer.remaining()) throw new BufferUnderflowException();
+            byte[] bytes = new byte[len];
+            buffer.get(bytes);
+            return new BigInteger(bytes);
+        }
+
+        private List<Object> readList() throws IOException {
+            int count = readCount();
+            if(count == 0) return Collections.emptyList();
+            List<Object> list = new ArrayList<>(Math.min(count, buffer.remaining()));
+            for(int i = 0; i < count; i++) list.add(readObject());
+            return list;
+        }
+
+        private Map<String, Object> readMap() throws IOException {
+            int count = readCount();
+            if(count == 0) return Collections.emptyMap();
+            Map<String, Object> map = new LinkedHashMap<>(Math.min(count, buffer.remaining()));
+            for(int i = 0; i < count; i++) {
+                String key = readString();
+                map.put(key, readObject());
+            }
+            return map;
+        }
+
+        private Object readObject() throws IOException {
+            int tag = (buffer.get() & 0xff);
+            //@f:0
+            if(tag == TAG_NULL)         return null;
+            else if(tag == TAG_FALSE)   return Boolean.FALSE;
+            else if(tag == TAG_TRUE)    return Boolean.TRUE;
+            else if(tag == TAG_STRING)  return readString();
+            else if(tag == TAG_MAP)     return readMap();
+            else if(tag == TAG_LIST)    return readList();
+            else if(tag == TAG_DECIMAL) return readDecimal();
+            else                        return readInteger(tag);
+            //@f:1
+        }
+
+        private BigDecimal readDecimal() throws KwikJSONException {
+            long scale = readZigZag();
+            if(scale < Integer.MIN_VALUE || scale > Integer.MAX_VALUE) throw new KwikJSONException(MSG_BAD_VARINT);
+            return new BigDecimal(readInteger(buffer.get() & 0xff), (int)scale);
+        }
+
+        private String readString() throws KwikJSONException {
+            int idx = readCount();
+            if(idx >= strings.length) throw new KwikJSONException(msgs.getString("msg.err.bin.bad_string_ref"), idx);
+            String str = strings[idx];
+            if(str == null) strings[idx] = str = (wide[idx] ? decodeRawString(offsets[idx], lengths[idx]) : decodeString(offsets[idx], lengths[idx]));
+            return str;
+        }
+
+        private void readStringTable() throws KwikJSONException {
+            int count = readCount();
+            int size  = Math.min(count, buffer.remaining());
+            offsets = new int[size];
+            lengths = new int[size];
+            wide    = new boolean[size];
+            for(int i = 0; i < count; i++) {
+                int  field = readCount();
+                int  len   = (field >>> 1);
+                long cc    = (((field & 1) == 0) ? len : (len * 2L));
+                if(i >= size || cc > buffer.remaining()) throw new BufferUnderflowException();
+                offsets[i] = buffer.position();
+                lengths[i] = len;
+                wide[i]    = ((field & 1) != 0);
+                buffer.position(offsets[i] + (int)cc);
+            }
+            strings = new String[size];
+        }
+
+        private long readVarLong() throws KwikJSONException {
+            long value = 0;
+            for(int shift = 0; shift < 64; shift += 7) {
+                int b = (buffer.get() & 0xff);
+                if(shift == 63 && b > 1) throw new KwikJSONException(MSG_BAD_VARINT);
+                value |= ((long)(b & 0x7f) << shift);
+                if((b & 0x80) == 0) return value;
+            }
+            throw new KwikJSONException(MSG_BAD_VARINT);
+        }
+
+        private long readZigZag() throws KwikJSONException {
+            long value = readVarLong();
+            return ((value >>> 1) ^ -(value & 1));
+        }
+
+        private String decodeRawString(int offset, int length) {
+            char[] chars = new char[length];
+            for(int i = 0, j = offset; i < length; i++, j += 2) chars[i] = (char)(((buffer.get(j) & 0xff) << 8) | (buffer.get(j + 1) & 0xff));
+            return String.valueOf(chars);
+        }
+
+        private String decodeString(int offset, int length) {
+            if(buffer.hasArray()) return new String(buffer.array(), buffer.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+            byte[]     bytes = new byte[length];
+            ByteBuffer slice = buffer.duplicate();
+            slice.position(offset);
+            slice.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
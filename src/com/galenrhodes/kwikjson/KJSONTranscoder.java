@@ -0,0 +1,364 @@
+package com.galenrhodes.kwikjson;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.galenrhodes.kwikjson.KJSON.*;
+
+public class KJSONTranscoder {
+    public static final char   SPACE      = props.getChar("p.char_space");
+    public static final char   LF         = props.getChar("p.lf");
+    public static final char   CR         = props.getChar("p.cr");
+    public static final char   TAB        = props.getChar("p.tab");
+    public static final char   FF         = props.getChar("p.ff");
+    public static final char   BKSP       = props.getChar("p.bs");
+    public static final String TRUE       = props.getProperty("p.true");
+    public static final String FALSE      = props.getProperty("p.false");
+    public static final String NULL       = props.getProperty("p.null");
+    public static final String HEX_DIGITS = props.getProperty("p.hex_digits");
+
+    private final Reader         reader;
+    private final Writer         writer;
+    private final CharsetEncoder encoder;
+    private final int            indent;
+    private final char[]         buffer;
+    private final char[]         output;
+    private final char[]         spaces;
+    private       int            bPtr;
+    private       int            bTop;
+    private       int            oPtr;
+    private       boolean[]      stack;
+    private       int            depth;
+    private       char           high;
+
+    private KJSONTranscoder(Reader reader, Writer writer, Charset cs, int indent) {
+        this.reader  = reader;
+        this.writer  = writer;
+        this.encoder = ((cs == null || isUnicode(cs)) ? null : cs.newEncoder());
+        this.indent  = Math.max(indent, 0);
+        this.buffer  = new char[65536];
+        this.output  = new char[65536];
+        this.spaces  = new char[256];
+        this.stack   = new boolean[32];
+        this.bTop    = 0;
+        this.bPtr    = 0;
+        this.oPtr    = 0;
+        this.depth   = 0;
+        this.high    = 0;
+        Arrays.fill(spaces, SPACE);
+    }
+
+    private boolean copyContainer(char open) throws IOException {
+        char close = ((open == MAP_OPEN) ? MAP_CLOSE : LIST_CLOSE);
+        write(open);
+        if(getNextToken() == close) {
+            write(close);
+            return false;
+        }
+        bPtr--;
+        if(depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+        stack[depth++] = (open == MAP_OPEN);
+        writeNewLine();
+        return true;
+    }
+
+    private char copyDigits(char ch) throws IOException {
+        write(ch);
+        do {
+            if(bPtr == bTop) fillBuffer(false);
+            int start = bPtr;
+            while(bPtr < bTop && CharHolder.isDigit(buffer[bPtr])) bPtr++;
+            write(buffer, start, bPtr - start);
+        } while(bPtr == bTop);
+        return buffer[bPtr++];
+    }
+
+    private void copyKeyword(String exemplar) throws IOException {
+        for(int i = 1, j = exemplar.length(); i < j; i++) {
+            char ch = getNextChar();
+            if(ch != exemplar.charAt(i)) throw new KwikJSONException(MSG_BAD_CHAR, ch);
+        }
+        write(exemplar);
+    }
+
+    private void copyNumber(char ch) throws IOException {
+        if(ch == MINUS) {
+            write(ch);
+            ch = getNextChar();
+        }
+        if(CharHolder.notDigit(ch)) throw new KwikJSONException(MSG_BAD_CHAR, ch);
+        if(ch == ZERO) {
+            write(ch);
+            ch = getNextChar();
+        }
+        else ch = copyDigits(ch);
+
+        if(ch == PERIOD) {
+            write(ch);
+            if(CharHolder.notDigit(ch = getNextChar())) throw new KwikJSONException(MSG_BAD_CHAR, ch);
+            ch = copyDigits(ch);
+        }
+
+        if(ch == LC_E || ch == UC_E) {
+            boolean negative = false;
+            ch = getNextChar();
+            if(ch == MINUS || ch == PLUS) {
+                negative = (ch == MINUS);
+                ch       = getNextChar();
+            }
+            if(CharHolder.notDigit(ch)) throw new KwikJSONException(MSG_BAD_CHAR, ch);
+            while(ch == ZERO) ch = getNextChar();
+            if(CharHolder.isDigit(ch)) {
+                write(UC_E);
+                if(negative) write(MINUS);
+                copyDigits(ch);
+            }
+        }
+        bPtr--;
+    }
+
+    private void copyString(char ch) throws IOException {
+        if(ch != QUOTE) throw new KwikJSONException(MSG_BAD_CHAR, ch);
+        write(QUOTE);
+        do {
+            if(bPtr == bTop) fillBuffer(false);
+            int start = bPtr;
+            while(bPtr < bTop && isPlain(buffer[bPtr])) bPtr++;
+            if(bPtr > start) {
+                writeHighSurrogate();
+                write(buffer, start, bPtr - start);
+            }
+            if(bPtr < bTop) {
+                ch = buffer[bPtr++];
+                if(ch == QUOTE) break;
+                writeChar((ch == BS) ? getEscapedChar() : ch);
+            }
+        } while(true);
+        writeHighSurrogate();
+        write(QUOTE);
+    }
+
+    private boolean copyValue() throws IOException {
+        char ch = getNextToken(); //@f:0
+        if(ch == MAP_OPEN || ch == LIST_OPEN) return copyContainer(ch);
+        else if(ch == QUOTE)                  copyString(ch);
+        else if(ch == CH_T)                   copyKeyword(TRUE);
+        else if(ch == CH_F)                   copyKeyword(FALSE);
+        else if(ch == CH_N)                   copyKeyword(NULL);
+        else                                  copyNumber(ch); //@f:1
+        return false;
+    }
+
+    private void flush() throws IOException {
+        writer.write(output, 0, oPtr);
+        writer.flush();
+        oPtr = 0;
+    }
+
+    private boolean fillBuffer(boolean optional) throws IOException {
+        bPtr = 0;
+        do bTop = reader.read(buffer); while(bTop == 0);
+        if(bTop > 0) return true;
+        bTop = 0;
+        if(optional) return false;
+        throw new KwikJSONException(msgs.getString("msg.err.unexpected_eof"));
+    }
+
+    private char getEscapedChar() throws IOException {
+        char ch = getNextChar(); //@f:0
+        if(ch == CH_N)       return LF;
+        else if(ch == CH_R)  return CR;
+        else if(ch == CH_T)  return TAB;
+        else if(ch == CH_F)  return FF;
+        else if(ch == CH_B)  return BKSP;
+        else if(ch == CH_U)  return getHexChar();
+        else if(ch == FS || ch == BS || ch == APOS || ch == QUOTE) return ch;
+        else throw new KwikJSONException(msgs.getString("msg.err.invalid_char_esc_seq"), ch); //@f:1
+    }
+
+    private char getHexChar() throws IOException {
+        char[] hex = new char[4];
+        int    val = 0;
+        for(int i = 0; i < hex.length; i++) {
+            int d = Character.digit(hex[i] = getNextChar(), 16);
+            if(d < 0) throw new KwikJSONException(msgs.getString("mgs.err.invalid_hex_seq"), String.valueOf(hex, 0, i + 1));
+            val = ((val << 4) | d);
+        }
+        return (char)val;
+    }
+
+    private char getNextChar() throws IOException {
+        if(bPtr == bTop) fillBuffer(false);
+        return buffer[bPtr++];
+    }
+
+    private char getNextToken() throws IOException {
+        char ch = getNextChar();
+        while(Character.isWhitespace(ch)) ch = getNextChar();
+        return ch;
+    }
+
+    private boolean isPlain(char ch) {
+        if(ch == QUOTE || ch == BS || ch < SPACE || Character.isSurrogate(ch)) return false;
+        return (ch < 0x80 || encoder == null || encoder.canEncode(ch));
+    }
+
+    private void transcode() throws IOException {
+        do if(bPtr == bTop && !fillBuffer(true)) return; while(Character.isWhitespace(buffer[bPtr++]));
+        char ch = buffer[bPtr - 1];
+        if(ch != MAP_OPEN && ch != LIST_OPEN) throw new KwikJSONException(MSG_BAD_CHAR, ch);
+
+        boolean member = copyContainer(ch);
+        while(depth > 0) {
+            if(!member) {
+                ch = getNextToken();
+                if(ch == (stack[depth - 1] ? MAP_CLOSE : LIST_CLOSE)) {
+                    depth--;
+                    writeNewLine();
+                    write(ch);
+                    continue;
+                }
+                if(ch != LIST_SEPARATOR) throw new KwikJSONException(MSG_BAD_CHAR, ch);
+                write(ch);
+                writeNewLine();
+            }
+            if(stack[depth - 1]) {
+                copyString(getNextToken());
+                if((ch = getNextToken()) != MAP_SEPARATOR) throw new KwikJSONException(MSG_BAD_CHAR, ch);
+                write(ch);
+                if(indent > 0) write(SPACE);
+            }
+            member = copyValue();
+        }
+        flush();
+    }
+
+    private void write(char ch) throws IOException {
+        if(oPtr == output.length) {
+            writer.write(output, 0, oPtr);
+            oPtr = 0;
+        }
+        output[oPtr++] = ch;
+    }
+
+    private void write(char[] chars, int offset, int length) throws IOException {
+        if(length > (output.length - oPtr)) {
+            writer.write(output, 0, oPtr);
+            oPtr = 0;
+            if(length > output.length) {
+                writer.write(chars, offset, length);
+                return;
+            }
+        }
+        System.arraycopy(chars, offset, output, oPtr, length);
+        oPtr += length;
+    }
+
+    private void write(String str) throws IOException {
+        for(int i = 0, j = str.length(); i < j; i++) write(str.charAt(i));
+    }
+
+    private void writeChar(char ch) throws IOException {
+        if(Character.isHighSurrogate(ch)) {
+            writeHighSurrogate();
+            high = ch;
+            return;
+        }
+        if(high != 0 && Character.isLowSurrogate(ch)) {
+            if(encoder == null || encoder.canEncode(String.valueOf(new char[] { high, ch }))) {
+                write(high);
+                write(ch);
+            }
+            else {
+                write(BS);
+                writeHexChar(high);
+                write(BS);
+                writeHexChar(ch);
+            }
+            high = 0;
+            return;
+        }
+        writeHighSurrogate();
+        if(isPlain(ch)) {
+            write(ch);
+            return;
+        }
+        write(BS); //@f:0
+        if(ch == QUOTE || ch == BS) write(ch);
+        else if(ch == LF)           write(CH_N);
+        else if(ch == CR)           write(CH_R);
+        else if(ch == TAB)          write(CH_T);
+        else if(ch == FF)           write(CH_F);
+        else if(ch == BKSP)         write(CH_B);
+        else                        writeHexChar(ch); //@f:1
+    }
+
+    private void writeHexChar(char ch) throws IOException {
+        write(CH_U);
+        for(int shift = 12; shift >= 0; shift -= 4) write(HEX_DIGITS.charAt((ch >> shift) & 0x0f));
+    }
+
+    private void writeHighSurrogate() throws IOException {
+        if(high != 0) {
+            write(BS);
+            writeHexChar(high);
+            high = 0;
+        }
+    }
+
+    private void writeNewLine() throws IOException {
+        if(indent > 0) {
+            write(LF);
+            for(int cc = (depth * indent); cc > 0; cc -= spaces.length) write(spaces, 0, Math.min(cc, spaces.length));
+        }
+    }
+
+    private static boolean isUnicode(Charset cs) {
+        return (cs.equals(StandardCharsets.UTF_8) || cs.equals(StandardCharsets.UTF_16) || cs.equals(StandardCharsets.UTF_16BE) || cs.equals(StandardCharsets.UTF_16LE));
+    }
+
+    public static void transcode(Reader reader, Writer writer, int indent) throws IOException {
+        new KJSONTranscoder(reader, writer, null, indent).transcode();
+    }
+
+    public static void transcode(InputStream inputStream, Charset inCs, OutputStream outputStream, Charset outCs, int indent) throws IOException {
+        new KJSONTranscoder(new InputStreamReader(inputStream, inCs), new OutputStreamWriter(outputStream, outCs), outCs, indent).transcode();
+    }
+
+    public static void transcode(InputStream inputStream, OutputStream outputStream, int indent) throws IOException {
+        transcode(inputStream, StandardCharsets.UTF_8, outputStream, StandardCharsets.UTF_8, indent);
+    }
+
+    public static String transcode(String string, int indent) throws IOException {
+        StringWriter writer = new StringWriter();
+        transcode(new StringReader(string), writer, indent);
+        return writer.toString();
+    }
+
+    public static void minify(Reader reader, Writer writer) throws IOException {
+        transcode(reader, writer, 0);
+    }
+
+    public static void minify(InputStream inputStream, OutputStream outputStream) throws IOException {
+        transcode(inputStream, outputStream, 0);
+    }
+
+    public static String minify(String string) throws IOException {
+        return transcode(string, 0);
+    }
+
+    public static void prettyPrint(Reader reader, Writer writer, int indent) throws IOException {
+        transcode(reader, writer, indent);
+    }
+
+    public static void prettyPrint(InputStream inputStream, OutputStream outputStream, int indent) throws IOException {
+        transcode(inputStream, outputStream, indent);
+    }
+
+    public static String prettyPrint(String string, int indent) throws IOException {
+        return transcode(string, indent);
+    }
+}
@@ -1,11 +1,20 @@
 package com.galenrhodes.kwikjson.tests;
 
 import com.galenrhodes.kwikjson.KJSON;
+import com.galenrhodes.kwikjson.KJSONBinary;
+import com.galenrhodes.kwikjson.KJSONTranscoder;
+import com.galenrhodes.kwikjson.KwikJSONException;
 import com.galenrhodes.kwikjson.KwikProperties;
+import com.galenrhodes.kwikjson.U;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 
 @SuppressWarnings({ "unchecked", "SameParameterValue" })
@@ -22,11 +31,24 @@ public class Main {
 
     public static void main(String... args) {
         try {
+            String text;
             try(InputStream inputStream = Main.class.getResourceAsStream(props.getProperty("p.test_file"))) {
-                Object o = KJSON.parseJSON(inputStream, StandardCharsets.UTF_8);
-                printf(props.getProperty("p.f6"), msgs.getString("msg.root_type"), ((o == null) ? NULL : o.getClass().getName()));
-                print(1, o);
+                text = new String(U.readStream(inputStream), StandardCharsets.UTF_8);
             }
+            Object o = KJSON.parseJSON(text);
+            printf(props.getProperty("p.f6"), msgs.getString("msg.root_type"), ((o == null) ? NULL : o.getClass().getName()));
+            print(1, o);
+
+            String surrogates = props.getProperty("p.test_surrogates");
+            testBinary(o);
+            testBinary(KJSON.parseJSON(surrogates));
+            testBinaryErrors();
+            printf(msgs.getString("msg.passed"), msgs.getString("msg.binary"));
+            testTranscoder(text);
+            testTranscoder(surrogates);
+            testTranscoderErrors();
+            check(KJSONTranscoder.prettyPrint(text, props.getInteger("p.indent")).equals(text.trim()), props.getProperty("p.test_file"));
+            printf(msgs.getString("msg.passed"), msgs.getString("msg.transcoder"));
             System.exit(0);
         }
         catch(Exception e) {
@@ -48,6 +70,65 @@ public class Main {
         //@f:1
     }
 
+    public static void testBinary(Object o) throws IOException {
+        byte[] bytes = KJSONBinary.toBinary(o);
+        check(o.equals(KJSONBinary.fromBinary(bytes)), "fromBinary(byte[])");
+        for(int i = 0; i < bytes.length; i++) checkCorruptBinary(Arrays.copyOf(bytes, i));
+        Path path = Files.createTempFile(props.getProperty("p.tmp_prefix"), props.getProperty("p.tmp_suffix"));
+        try {
+            Files.write(path, KJSONBinary.toBinary(o));
+            check(o.equals(KJSONBinary.fromBinary(path)), "fromBinary(Path)");
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    public static void testBinaryErrors() throws IOException {
+        for(String hex : props.getProperty("p.test_bad_binary").split(String.valueOf(SPACE))) {
+            byte[] bytes = new byte[hex.length() / 2];
+            for(int i = 0; i < bytes.length; i++) bytes[i] = (byte)Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+            checkCorruptBinary(bytes);
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            KJSONBinary.toBinary(Arrays.<Object>asList(props.getProperty("p.test_file"), props.getInteger("p.indent")), outputStream);
+            check(false, "toBinary(Integer)");
+        }
+        catch(KwikJSONException e) { check(outputStream.size() == 0, "toBinary(Integer)"); }
+    }
+
+    public static void testTranscoder(String text) throws IOException {
+        Object o      = KJSON.parseJSON(text);
+        int    indent = props.getInteger("p.indent");
+        String pretty = KJSONTranscoder.prettyPrint(text, indent);
+        check(o.equals(KJSON.parseJSON(KJSONTranscoder.minify(text))), "minify(String)");
+        check(o.equals(KJSON.parseJSON(pretty)), "prettyPrint(String, int)");
+        check(pretty.equals(KJSONTranscoder.prettyPrint(KJSONTranscoder.minify(text), indent)), "prettyPrint(minify(String), int)");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KJSONTranscoder.minify(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), outputStream);
+        check(o.equals(KJSON.parseJSON(outputStream.toByteArray())), "minify(InputStream, OutputStream)");
+
+        outputStream.reset();
+        KJSONTranscoder.transcode(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, outputStream, StandardCharsets.US_ASCII, 0);
+        byte[] ascii = outputStream.toByteArray();
+        for(byte b : ascii) check(b >= 0, "US-ASCII");
+        check(o.equals(KJSON.parseJSON(ascii, StandardCharsets.US_ASCII)), "transcode(US-ASCII)");
+    }
+
+    public static void testTranscoderErrors() throws IOException {
+        for(String bad : props.getProperty("p.test_bad").split(String.valueOf(SPACE))) {
+            try {
+                KJSONTranscoder.minify(bad);
+                check(false, bad);
+            }
+            catch(KwikJSONException e) { /* expected */ }
+        }
+        check(props.getProperty("p.test_exponents_normalized").equals(KJSONTranscoder.minify(props.getProperty("p.test_exponents"))), "exponents");
+    }
+
     private static Object[] append(Object o, Object... args) {
         Object[] _args = new Object[args.length + 1];
         System.arraycopy(args, 0, _args, 0, args.length);
@@ -59,6 +140,18 @@ public class Main {
         return stringOf(new char[level * 4], SPACE);
     }
 
+    private static void checkCorruptBinary(byte[] bytes) throws IOException {
+        try {
+            KJSONBinary.fromBinary(bytes);
+            check(false, Arrays.toString(bytes));
+        }
+        catch(KwikJSONException e) { /* expected */ }
+    }
+
+    private static void check(boolean condition, String what) {
+        if(!condition) throw new IllegalStateException(String.format(msgs.getString("msg.mismatch"), what));
+    }
+
     private static int getLength(Collection<String> strings) {
         int kl = 0;
         for(String s : strings) kl = Math.max(kl, s.length());